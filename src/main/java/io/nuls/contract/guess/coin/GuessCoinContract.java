@@ -1,8 +1,13 @@
 package io.nuls.contract.guess.coin;
 
+import io.nuls.contract.guess.coin.model.CapacityIndex;
 import io.nuls.contract.guess.coin.model.GameStatus;
 import io.nuls.contract.guess.coin.model.GameTable;
+import io.nuls.contract.guess.coin.model.Leaderboard;
 import io.nuls.contract.guess.coin.model.Player;
+import io.nuls.contract.guess.coin.model.Settlement;
+import io.nuls.contract.guess.coin.model.SideTotal;
+import io.nuls.contract.guess.coin.model.Statistics;
 import io.nuls.contract.guess.coin.model.TransferEvent;
 import io.nuls.contract.sdk.*;
 import io.nuls.contract.sdk.annotation.Payable;
@@ -66,6 +71,42 @@ public class GuessCoinContract implements Contract {
      */
     public static final Integer DEFAULT_WAITING_END_BLOCK_COUNT = 360;
 
+    /**
+     * 排行榜展示长度
+     */
+    public static final int LEADERBOARD_SIZE = 10;
+
+    /**
+     * 净收益排行榜保存的候选地址数量
+     * 净收益可能下降，多保存候选地址以减少榜上地址分值下降后遗漏其他地址的情况，排行榜为近似结果
+     */
+    public static final int LEADERBOARD_CANDIDATE_SIZE = 50;
+
+    /**
+     * 每次清算处理的最大玩家数量
+     * 玩家数量超过此值的游戏桌，公布谜底后需继续调用settle分批完成清算，避免单笔交易超出gas上限
+     * 每个玩家的清算包括：BigDecimal收益及手续费计算、玩家余额更新、统计数据更新、4个排行榜的二分查找及列表插入删除
+     * 此值为按上述操作保守估算的数量，未经实测，部署前应通过节点的合约gas预估接口对满批次的settle调用进行测算后调整
+     */
+    public static final int SETTLE_BATCH_SIZE = 200;
+
+    /**
+     * 变更记录每页最大数量
+     */
+    public static final int CHANGE_PAGE_SIZE = 100;
+
+    /**
+     * 玩家列表每页最大数量
+     */
+    public static final int PLAYER_PAGE_SIZE = 100;
+
+    /**
+     * 批量开盘及批量公布谜底每次最多处理的游戏桌数量
+     * 批量开盘每个游戏桌包括押金预留、游戏桌创建、容量索引的二分查找及列表插入；批量公布谜底每个游戏桌只校验谜底并确定答案，不做清算
+     * 此值为保守估算的数量，未经实测，部署前应通过节点的合约gas预估接口对满批次的调用进行测算后调整
+     */
+    public static final int BATCH_TABLE_SIZE = 50;
+
 
     /**
      * 手续费
@@ -81,6 +122,98 @@ public class GuessCoinContract implements Contract {
 
     Map<Long, GameTable> tableList = new LinkedHashMap<>();
 
+    /**
+     * 等待加入状态的游戏桌数量，开盘时增加，离开等待加入状态时减少
+     */
+    private int activeTableCount;
+
+    /**
+     * 庄家资金池
+     * 庄家一次存入资金后，可从资金池中预留押金开设多个游戏桌，清算时押金及收益记回资金池，由庄家自行提取
+     */
+    Map<Address, BigInteger> bankrollList = new HashMap<>();
+
+    /**
+     * 玩家余额
+     * 清算后玩家的赌注及收益记入余额，可直接用于下一轮下注，或由玩家自行提取
+     */
+    Map<Address, BigInteger> balanceList = new HashMap<>();
+
+    /**
+     * 未清算游戏桌中庄家一方的资产总额
+     * 等待加入时为押金，分批清算中为押金减去已赔付的赌注加上已赢得的赌注
+     */
+    private BigInteger tableDepositTotal = BigInteger.ZERO;
+
+    /**
+     * 未清算的玩家赌注总额
+     */
+    private BigInteger playerWagerTotal = BigInteger.ZERO;
+
+    /**
+     * 分批清算中已累计、待最后一批支付的合约手续费、系统提成及庄家补偿总额
+     */
+    private BigInteger pendingFeeTotal = BigInteger.ZERO;
+
+    /**
+     * 庄家资金池余额总额
+     */
+    private BigInteger bankrollTotal = BigInteger.ZERO;
+
+    /**
+     * 玩家余额总额
+     */
+    private BigInteger balanceTotal = BigInteger.ZERO;
+
+    /**
+     * 清算时收益及手续费取整后归入系统提成的零头总额
+     */
+    private BigDecimal roundingDust = BigDecimal.ZERO;
+
+    /**
+     * 地址统计数据
+     * 开盘、下注及清算时增量更新
+     */
+    Map<Address, Statistics> statisticsList = new HashMap<>();
+
+    /**
+     * 玩家净收益排行榜（近似）
+     */
+    private Leaderboard topWinners = new Leaderboard(LEADERBOARD_SIZE, LEADERBOARD_CANDIDATE_SIZE);
+
+    /**
+     * 玩家下注总额排行榜
+     */
+    private Leaderboard topPlayerVolume = new Leaderboard(LEADERBOARD_SIZE);
+
+    /**
+     * 庄家净收益排行榜（近似）
+     */
+    private Leaderboard topBankers = new Leaderboard(LEADERBOARD_SIZE, LEADERBOARD_CANDIDATE_SIZE);
+
+    /**
+     * 庄家押金总额排行榜
+     */
+    private Leaderboard topBankerVolume = new Leaderboard(LEADERBOARD_SIZE);
+
+    /**
+     * 等待加入的游戏桌猜正面的剩余容量索引
+     */
+    private CapacityIndex frontCapacityIndex = new CapacityIndex();
+
+    /**
+     * 等待加入的游戏桌猜背面的剩余容量索引
+     */
+    private CapacityIndex backCapacityIndex = new CapacityIndex();
+
+    /**
+     * 游戏桌变更记录，按区块高度从小到大排列
+     * changeTableIdList与changeHeightList一一对应，游戏桌再次变更后旧记录失效
+     */
+    private List<Long> changeTableIdList = new ArrayList<>();
+
+    private List<Long> changeHeightList = new ArrayList<>();
+
     /**
      * 构建一个猜硬币正反的合约
      *
@@ -123,25 +256,114 @@ public class GuessCoinContract implements Contract {
      */
     @Payable
     public String createGameTable(@Required String riddleHash,@Required Integer gameBlockNumber) {
+        //庄家支付的押金为总的可接受玩家的赌注金额
+        BigInteger maxWagerTotal = getWagerForPaying();
+        return openGameTable(riddleHash, gameBlockNumber, maxWagerTotal, false).toString();
+    }
+
+    /**
+     * 扮演庄家开盘口，押金从庄家资金池中预留
+     * 调用时转入的资产会先存入庄家资金池
+     *
+     * @param riddleHash      谜底hash值 同createGameTable
+     * @param gameBlockNumber 游戏开始到谜底揭晓持续的区块数 同createGameTable
+     * @param maxWagerTotal   本桌预留的押金数量
+     * @return
+     */
+    @Payable
+    public String createGameTableFromBankroll(@Required String riddleHash, @Required Integer gameBlockNumber, @Required BigInteger maxWagerTotal) {
+        takeBankroll(maxWagerTotal, 1);
+        return openGameTable(riddleHash, gameBlockNumber, maxWagerTotal, true).toString();
+    }
+
+    /**
+     * 批量开盘口，每个谜底hash开设一个游戏桌，押金均从庄家资金池中预留，每次最多<BATCH_TABLE_SIZE>个
+     * 庄家可线下批量生成谜底及其hash，按返回的游戏桌id保存对应的谜底，开奖时通过doneBatch批量公布
+     *
+     * @param riddleHashList  以逗号分隔的谜底hash值列表
+     * @param gameBlockNumber 游戏开始到谜底揭晓持续的区块数 同createGameTable
+     * @param maxWagerTotal   每个游戏桌预留的押金数量
+     * @return 与谜底hash顺序一致的游戏桌id列表
+     */
+    @Payable
+    public String createGameTableBatchFromBankroll(@Required String riddleHashList, @Required Integer gameBlockNumber, @Required BigInteger maxWagerTotal) {
+        String[] riddleHashes = Tools.split(riddleHashList, "riddle hash can't null");
+        Utils.require(riddleHashes.length <= BATCH_TABLE_SIZE, "riddle hash count can't exceed " + BATCH_TABLE_SIZE);
+        takeBankroll(maxWagerTotal, riddleHashes.length);
+        StringBuilder res = new StringBuilder();
+        for (String riddleHash : riddleHashes) {
+            GameTable gt = openGameTable(riddleHash, gameBlockNumber, maxWagerTotal, true);
+            if (res.length() > 0) {
+                res.append(",");
+            }
+            res.append(gt.getId());
+        }
+        return res.insert(0, "[").append("]").toString();
+    }
+
+    private GameTable openGameTable(String riddleHash, Integer gameBlockNumber, BigInteger maxWagerTotal, boolean bankroll) {
         Long id = tableList.size() + 1L;
         Tools.requireNonNull(riddleHash, "riddle hash can't null");
         Tools.requireNonNull(gameBlockNumber, "gameBlockNumber can't null");
         Utils.require(gameBlockNumber > 6, "game block number has to be greater than 6 ");
-        int activeTableCount = 0;
-        for (GameTable gt : tableList.values()){
-            if(gt.getStatus().equals(GameStatus.WATING_JOIN)){
-                activeTableCount++;
-            }
-        }
         Utils.require(activeTableCount < maxBanker,"game table number to limit");
-        //庄家支付的押金为总的可接受玩家的赌注金额
-        BigInteger maxWagerTotal = getWagerForPaying();
         Utils.require(maxWagerTotal != null && maxWagerTotal.max(BigInteger.ZERO).equals(maxWagerTotal), "must paying wager");
         //从最新的高度开始计算庄家公布谜底的高度
         Long endBlockHeight = Block.newestBlockHeader().getHeight() + gameBlockNumber;
-        GameTable gt = new GameTable(id, Msg.sender(), riddleHash, maxWagerTotal, endBlockHeight);
+        GameTable gt = new GameTable(id, Msg.sender(), riddleHash, maxWagerTotal, endBlockHeight, bankroll);
         tableList.put(id, gt);
-        return gt.toString();
+        activeTableCount++;
+        tableDepositTotal = tableDepositTotal.add(maxWagerTotal);
+        updateCapacityIndex(gt);
+        recordChange(gt);
+        getStatistics(Msg.sender()).addHostTable(maxWagerTotal);
+        updateLeaderboard(Msg.sender());
+        return gt;
+    }
+
+    /**
+     * 存入庄家资金池
+     *
+     * @return 存入后资金池余额
+     */
+    @Payable
+    public String depositBankroll() {
+        BigInteger value = Msg.value();
+        Utils.require(value != null && value.compareTo(BigInteger.ZERO) == 1, "must paying bankroll");
+        return addBankroll(Msg.sender(), value).toString();
+    }
+
+    /**
+     * 从庄家资金池提取资产
+     * 已被游戏桌预留的押金需要等待清算后才能提取
+     *
+     * @param amount 提取数量，为空时提取全部余额
+     * @return 提取后资金池余额
+     */
+    public String withdrawBankroll(BigInteger amount) {
+        Address banker = Msg.sender();
+        BigInteger bankroll = getBankrollBalance(banker);
+        if (null == amount) {
+            amount = bankroll;
+        }
+        Utils.require(amount.compareTo(BigInteger.ZERO) == 1, "withdraw amount must be greater than 0");
+        Utils.require(bankroll.compareTo(amount) >= 0, "bankroll not enough");
+        BigInteger balance = bankroll.subtract(amount);
+        setBankrollBalance(banker, balance);
+        banker.transfer(amount);
+        return balance.toString();
+    }
+
+    /**
+     * 查询庄家资金池余额
+     *
+     * @param address 庄家地址
+     * @return
+     */
+    @View
+    public String getBankroll(@Required String address) {
+        Tools.requireNonNull(address, "address can't null");
+        return getBankrollBalance(new Address(address)).toString();
     }
 
     /**
@@ -163,6 +385,93 @@ public class GuessCoinContract implements Contract {
         return res.insert(0, "[").append("]").toString();
     }
 
+    /**
+     * 获取指定区块高度之后有变更的游戏桌列表
+     * 按变更高度从小到大分页返回，调用方以返回的nextOffset作为下一页的offset，直到hasMore为false
+     * 只返回游戏桌摘要，玩家列表通过getTablePlayerList分页获取
+     *
+     * @param sinceHeight 区块高度，返回在此高度之后（不含）变更过的游戏桌
+     * @param offset      从sinceHeight之后的第几条变更记录开始，为空时从0开始
+     * @param limit       本页最多扫描的变更记录数量，为空或超过<CHANGE_PAGE_SIZE>时取<CHANGE_PAGE_SIZE>
+     * @return
+     */
+    @View
+    public String getChangedTableList(@Required Long sinceHeight, Integer offset, Integer limit) {
+        Tools.requireNonNull(sinceHeight, "sinceHeight can't null");
+        if (null == offset) {
+            offset = 0;
+        }
+        Utils.require(offset >= 0, "offset not bee minus");
+        if (null == limit || limit > CHANGE_PAGE_SIZE) {
+            limit = CHANGE_PAGE_SIZE;
+        }
+        Utils.require(limit >= 1, "limit has to be greater than 0");
+        //二分查找第一条高度大于sinceHeight的变更记录
+        int low = 0;
+        int high = changeHeightList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (changeHeightList.get(mid) <= sinceHeight) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int start = (int) Math.min((long) low + offset, changeHeightList.size());
+        int end = Math.min(start + limit, changeHeightList.size());
+        StringBuilder res = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            GameTable gt = tableList.get(changeTableIdList.get(i));
+            //游戏桌之后再次变更过，本条记录已失效
+            if (!changeHeightList.get(i).equals(gt.getLastModifiedHeight())) {
+                continue;
+            }
+            if (res.length() > 0) {
+                res.append(",");
+            }
+            res.append(gt.toSummaryString());
+        }
+        return new StringBuilder("{")
+                .append("\"nextOffset\":")
+                .append(offset + (end - start))
+                .append(",\"hasMore\":")
+                .append(end < changeHeightList.size())
+                .append(",\"tableList\":[")
+                .append(res)
+                .append("]}").toString();
+    }
+
+    /**
+     * 分页获取游戏桌的玩家列表
+     *
+     * @param tableId
+     * @param offset  从第几个玩家开始，为空时从0开始
+     * @param limit   本页最多返回的玩家数量，为空或超过<PLAYER_PAGE_SIZE>时取<PLAYER_PAGE_SIZE>
+     * @return
+     */
+    @View
+    public String getTablePlayerList(@Required Long tableId, Integer offset, Integer limit) {
+        Tools.requireNonNull(tableId, "table id can't null");
+        Utils.require(tableList.containsKey(tableId), "table id error");
+        if (null == offset) {
+            offset = 0;
+        }
+        Utils.require(offset >= 0, "offset not bee minus");
+        if (null == limit || limit > PLAYER_PAGE_SIZE) {
+            limit = PLAYER_PAGE_SIZE;
+        }
+        Utils.require(limit >= 1, "limit has to be greater than 0");
+        List<Player> playerList = tableList.get(tableId).getPlayerList();
+        int start = Math.min(offset, playerList.size());
+        int end = Math.min(start + limit, playerList.size());
+        return new StringBuilder("{")
+                .append("\"playerCount\":")
+                .append(playerList.size())
+                .append(",\"playerList\":")
+                .append(playerList.subList(start, end))
+                .append('}').toString();
+    }
+
     /**
      * 猜正面
      *
@@ -171,7 +480,7 @@ public class GuessCoinContract implements Contract {
      */
     @Payable
     public String guessFront(@Required Long tableId) {
-        return join(tableId, 1).toString();
+        return join(tableId, 1, getWagerForPaying()).toString();
     }
 
     /**
@@ -182,7 +491,93 @@ public class GuessCoinContract implements Contract {
      */
     @Payable
     public String guessBack(@Required Long tableId) {
-        return join(tableId, 0).toString();
+        return join(tableId, 0, getWagerForPaying()).toString();
+    }
+
+    /**
+     * 使用余额猜正面
+     *
+     * @param tableId
+     * @param wager   从余额中扣除的赌注数量
+     * @return
+     */
+    public String guessFrontFromBalance(@Required Long tableId, @Required BigInteger wager) {
+        return join(tableId, 1, takeBalance(wager)).toString();
+    }
+
+    /**
+     * 使用余额猜背面
+     *
+     * @param tableId
+     * @param wager   从余额中扣除的赌注数量
+     * @return
+     */
+    public String guessBackFromBalance(@Required Long tableId, @Required BigInteger wager) {
+        return join(tableId, 0, takeBalance(wager)).toString();
+    }
+
+    /**
+     * 猜正面，不指定游戏桌
+     * 按剩余容量从大到小选择游戏桌下注，单个游戏桌容量不足时拆分到多个游戏桌
+     *
+     * @return 下注的游戏桌列表
+     */
+    @Payable
+    public String guessFrontAny() {
+        return joinAny(1, getWagerForPaying());
+    }
+
+    /**
+     * 猜背面，不指定游戏桌
+     * 按剩余容量从大到小选择游戏桌下注，单个游戏桌容量不足时拆分到多个游戏桌
+     *
+     * @return 下注的游戏桌列表
+     */
+    @Payable
+    public String guessBackAny() {
+        return joinAny(0, getWagerForPaying());
+    }
+
+    /**
+     * 按剩余容量索引分配赌注并加入游戏
+     * 遇到已截止下注的游戏桌时将其移出索引
+     *
+     * @param answer
+     * @param wager
+     * @return
+     */
+    private String joinAny(int answer, BigInteger wager) {
+        CapacityIndex capacityIndex = answer == 1 ? frontCapacityIndex : backCapacityIndex;
+        List<GameTable> closedList = new ArrayList<>();
+        Map<Long, BigInteger> wagerList = new LinkedHashMap<>();
+        BigInteger remaining = wager;
+        for (int i = 0; i < capacityIndex.size() && remaining.compareTo(BigInteger.ZERO) == 1; i++) {
+            GameTable gt = tableList.get(capacityIndex.getTableId(i));
+            if (gt.getEndBlockHeight() - 6 <= Block.number()) {
+                closedList.add(gt);
+                continue;
+            }
+            BigInteger capacity = capacityIndex.getCapacity(gt.getId());
+            //索引按剩余容量从大到小排列，后面的游戏桌已无容量
+            if (capacity.compareTo(BigInteger.ZERO) <= 0) {
+                break;
+            }
+            BigInteger amount = remaining.min(capacity);
+            wagerList.put(gt.getId(), amount);
+            remaining = remaining.subtract(amount);
+        }
+        for (GameTable gt : closedList) {
+            removeCapacityIndex(gt);
+        }
+        Utils.require(remaining.equals(BigInteger.ZERO), "可下注容量不足");
+        StringBuilder res = new StringBuilder();
+        for (Map.Entry<Long, BigInteger> entry : wagerList.entrySet()) {
+            if (res.length() > 0) {
+                res.append(",");
+            }
+            res.append(join(entry.getKey(), answer, entry.getValue()).toString());
+        }
+        return res.insert(0, "[").append("]").toString();
     }
 
     /**
@@ -191,17 +586,54 @@ public class GuessCoinContract implements Contract {
      *
      * @param tableId
      * @param answer
+     * @param wager
      * @return
      */
-    private GameTable join(Long tableId, int answer) {
+    private GameTable join(Long tableId, int answer, BigInteger wager) {
         GameTable gt = checkGameTableAndGet(tableId, GameStatus.WATING_JOIN);
-        BigInteger wager = getWagerForPaying();
         Utils.require(wager != null && wager.max(BigInteger.ZERO).equals(wager), "must paying wager");
         Utils.require(gt.getEndBlockHeight() - 6 > Block.number(), "游戏已进入开奖环节，不能参加");
-        gt.join(new Player(Msg.sender(), getWagerForPaying(), answer));
+        gt.join(new Player(Msg.sender(), wager, answer), getWinEarningsPer(), contractFee, GuessCoinContract.BANKER_COMPENSATION);
+        playerWagerTotal = playerWagerTotal.add(wager);
+        updateCapacityIndex(gt);
+        recordChange(gt);
+        getStatistics(Msg.sender()).addWager(wager);
+        updateLeaderboard(Msg.sender());
         return gt;
     }
 
+    /**
+     * 提取玩家余额
+     *
+     * @param amount 提取数量，为空时提取全部余额
+     * @return 提取后的余额
+     */
+    public String withdraw(BigInteger amount) {
+        Address player = Msg.sender();
+        BigInteger balance = getPlayerBalance(player);
+        if (null == amount) {
+            amount = balance;
+        }
+        Utils.require(amount.compareTo(BigInteger.ZERO) == 1, "withdraw amount must be greater than 0");
+        Utils.require(balance.compareTo(amount) >= 0, "balance not enough");
+        balance = balance.subtract(amount);
+        setPlayerBalance(player, balance);
+        player.transfer(amount);
+        return balance.toString();
+    }
+
+    /**
+     * 查询玩家余额
+     *
+     * @param address 玩家地址
+     * @return
+     */
+    @View
+    public String getBalance(@Required String address) {
+        Tools.requireNonNull(address, "address can't null");
+        return getPlayerBalance(new Address(address)).toString();
+    }
+
 
     /**
      * 举报庄家作弊
@@ -220,33 +652,50 @@ public class GuessCoinContract implements Contract {
         BigInteger maxWagerTotal = gt.getMaxWagerTotal();
         //判定如果本轮没有玩家参与，则把所有押金退回给庄家
         if(gt.getPlayerList().isEmpty()){
-            banker.transfer(maxWagerTotal);
+            tableDepositTotal = tableDepositTotal.subtract(maxWagerTotal);
+            payBanker(gt, maxWagerTotal);
             gt.setStatus(GameStatus.DONE);
+            closeGameTable(gt);
+            recordChange(gt);
             event.putPlayer(banker, BigInteger.ZERO);
             Utils.emit(event);
             return gt.toString();
         }
         //玩家收益百分比
-        BigDecimal winEarningsPer = BigDecimal.ONE
-                //减掉系统提成
-                .subtract(GuessCoinContract.SYSTEM_COMPENSATION)
-                //减掉合约手续费
-                .subtract(contractFee);
+        BigDecimal winEarningsPer = getWinEarningsPer();
         //合约创建者手续费收益
         BigInteger contractFeeTotal = BigInteger.ZERO;
         //系统提成收益
         BigInteger systemCompensation = BigInteger.ZERO;
         //庄家支付的押金
         BigInteger bankerWager = maxWagerTotal;
+        //本桌押金及玩家赌注全部清算
+        BigInteger wagerTotal = gt.getFrontWagerTotal().add(gt.getBackWagerTotal());
+        tableDepositTotal = tableDepositTotal.subtract(maxWagerTotal);
+        playerWagerTotal = playerWagerTotal.subtract(wagerTotal);
+        //两面赌注相互抵消时赌注总额可能超过押金，此时按投注比例瓜分押金，保证赔偿总额不超过押金
+        boolean shareDeposit = wagerTotal.compareTo(maxWagerTotal) == 1;
+        //本桌赔偿总额，用于计算系统提成零头
+        BigInteger compensationTotal = BigInteger.ZERO;
         for (Player player : gt.getPlayerList()){
+            //玩家从押金中获得的赔偿，押金足够时等于玩家赌注，否则为按投注比例瓜分的押金
+            BigInteger compensation = player.getWager();
+            if (shareDeposit) {
+                compensation = maxWagerTotal.multiply(player.getWager()).divide(wagerTotal);
+            }
+            compensationTotal = compensationTotal.add(compensation);
             //从庄家支付的押金中减掉赔偿给玩家的数量
-            bankerWager = bankerWager.subtract(player.getWager());
-            //然后将这部分赌注分配给玩家、合约手续费、系统提成
-            BigDecimal playerWager = new BigDecimal(player.getWager());
+            bankerWager = bankerWager.subtract(compensation);
+            //然后将这部分赔偿分配给玩家、合约手续费、系统提成
+            BigDecimal playerWager = new BigDecimal(compensation);
             //玩家应得收益
             BigInteger winAmount = playerWager.multiply(winEarningsPer).toBigInteger();
             event.putPlayer(player.getAddres(), winAmount);
             player.setWager(player.getWager().add(winAmount));
+            Statistics statistics = getStatistics(player.getAddres());
+            statistics.addWin(winAmount);
+            statistics.addFee(playerWager.toBigInteger().subtract(winAmount));
+            updateLeaderboard(player.getAddres());
             //合约手续费
             BigInteger contractFeeNumber = BigInteger.ZERO;
             if (!contractFee.equals(BigDecimal.ZERO)) {
@@ -255,13 +704,19 @@ public class GuessCoinContract implements Contract {
             }
             //系统收益
             systemCompensation = systemCompensation.add(playerWager.toBigInteger().subtract(winAmount).subtract(contractFeeNumber));
-            //转账到玩家账户 押金+赢的数量
-            player.getAddres().transfer(player.getWager());
+            //记入玩家余额 押金+赢的数量
+            addPlayerBalance(player.getAddres(), player.getWager());
         }
         //判定赔给玩家后押金是否有剩余，如果有剩余退回给庄家
         if (bankerWager.compareTo(BigInteger.ZERO) == 1){
-            banker.transfer(bankerWager);
+            payBanker(gt, bankerWager);
         }
+        Statistics bankerStatistics = getStatistics(banker);
+        //庄家最多损失全部押金
+        bankerStatistics.addBankerLose(maxWagerTotal.subtract(bankerWager.max(BigInteger.ZERO)));
+        bankerStatistics.addBankerOut();
+        updateLeaderboard(banker);
+        addRoundingDust(systemCompensation, compensationTotal);
         if (systemCompensation.compareTo(BigInteger.ZERO) == 1) {
             systemAddress.transfer(systemCompensation);
             event.setSystemCompensation(systemCompensation);
@@ -273,16 +728,36 @@ public class GuessCoinContract implements Contract {
         }
         Utils.emit(event);
         gt.setStatus(GameStatus.BANKER_OUT);
+        closeGameTable(gt);
+        recordChange(gt);
         return gt.toString();
     }
 
     /**
      * 庄家公开谜底
+     * 校验谜底并确定答案后开始清算，玩家数量超过<SETTLE_BATCH_SIZE>时本次只清算第一批，
+     * 剩余玩家需调用settle继续清算，全部清算完成后游戏桌状态变为DONE
      *
      * @param tableId
      * @param riddle  谜底的明文
      */
     public String done(@Required  Long tableId,@Required Long riddle) {
+        GameTable gt = reveal(tableId, riddle);
+        if (gt.getStatus() == GameStatus.SETTLING) {
+            return settleBatch(gt);
+        }
+        return getSettleProgress(gt);
+    }
+
+    /**
+     * 校验谜底并确定答案
+     * 没有玩家参与的游戏桌直接退回庄家押金并结束，否则游戏桌进入清算状态，玩家的清算由调用方完成
+     *
+     * @param tableId
+     * @param riddle  谜底的明文
+     * @return
+     */
+    private GameTable reveal(Long tableId, Long riddle) {
         Tools.requireNonNull(tableId, "table id can't null");
         Tools.requireNonNull(riddle, "riddle can't null");
         GameTable gt = checkGameTableAndGet(tableId, GameStatus.WATING_JOIN);
@@ -290,65 +765,111 @@ public class GuessCoinContract implements Contract {
         String hash = Utils.sha3(String.valueOf(riddle).getBytes());
         //比对庄家提供的谜底与开盘时提供的是否一致
         Utils.require(hash.equals(gt.getRiddleHash()), "riddle and riddleHash not match");
-        TransferEvent event = new TransferEvent();
-        List<Player> playerList = gt.getPlayerList();
         Address banker = gt.getBanker();
         BigInteger maxWagerTotal = gt.getMaxWagerTotal();
         //如果没有玩家参与，退回庄家押金，结束本轮游戏
-        if (playerList.isEmpty()) {
-            banker.transfer(maxWagerTotal);
+        if (gt.getPlayerList().isEmpty()) {
+            TransferEvent event = new TransferEvent();
+            tableDepositTotal = tableDepositTotal.subtract(maxWagerTotal);
+            payBanker(gt, maxWagerTotal);
             gt.setStatus(GameStatus.DONE);
+            closeGameTable(gt);
+            recordChange(gt);
             event.putPlayer(banker, BigInteger.ZERO);
             Utils.emit(event);
-            return gt.toString();
+            return gt;
         }
 
         //通过判断riddle的奇偶性，转换为正面还背面 奇数为正面，偶数为背面
         //通过取2的模，0为偶数，1为奇数
         int anwser = (int) (riddle % 2);
-        //先预计算一次本轮庄家的收益情况
-        //存储庄家赢的数量
-        BigInteger bankerWinNumber = BigInteger.ZERO;
-        //玩家总下注数量
-        BigInteger playerWagerTotal = BigInteger.ZERO;
-        for (Player player : playerList) {
-            playerWagerTotal = playerWagerTotal.add(player.getWager());
-            //如果玩家猜中了，庄家收益减少相应数量
-            if (player.getAnswer() == anwser) {
-                bankerWinNumber = bankerWinNumber.subtract(player.getWager());
-            } else {
-                //玩家猜错了，庄家收益增加相应数量
-                bankerWinNumber = bankerWinNumber.add(player.getWager());
-            }
-        }
-        //玩家收益百分比
-        BigDecimal winEarningsPer = BigDecimal.ONE
-                //减掉系统提成
-                .subtract(GuessCoinContract.SYSTEM_COMPENSATION)
-                //减掉合约手续费
-                .subtract(contractFee);
-        //保存是否触发庄家补偿
-        boolean bankerCompensationFlag = false;
+        //通过两面的赌注总额预计算本轮庄家的收益情况，猜错的赌注归庄家，猜中的赌注由庄家赔付
+        BigInteger bankerWinNumber = gt.getWagerTotal(1 - anwser).subtract(gt.getWagerTotal(anwser));
         //如果本轮庄家收益为0，触发庄家补偿机制，从赢家收益中提成10%
-        if (bankerWinNumber.equals(BigInteger.ZERO)) {
-            winEarningsPer = winEarningsPer.subtract(GuessCoinContract.BANKER_COMPENSATION);
-            bankerCompensationFlag = true;
+        boolean bankerCompensationFlag = bankerWinNumber.equals(BigInteger.ZERO);
+        gt.setRiddle(riddle);
+        gt.setAnswer(anwser);
+        gt.setSettlement(new Settlement(maxWagerTotal, bankerCompensationFlag));
+        gt.setStatus(GameStatus.SETTLING);
+        closeGameTable(gt);
+        recordChange(gt);
+        return gt;
+    }
+
+    /**
+     * 批量公布谜底
+     * 每次最多<BATCH_TABLE_SIZE>个游戏桌，只校验谜底并确定答案，不做玩家清算，
+     * 有玩家参与的游戏桌进入清算状态，需调用settle完成清算；没有玩家参与的游戏桌直接退回庄家押金并结束
+     * 任何一个游戏桌公布失败（状态错误、未到开奖高度、谜底与hash不一致等）都会使整批交易回滚，所有游戏桌均不会开奖
+     *
+     * @param tableIdList 以逗号分隔的游戏桌id列表
+     * @param riddleList  以逗号分隔的谜底明文列表，与游戏桌id一一对应
+     * @return 每个游戏桌的清算进度
+     */
+    public String doneBatch(@Required String tableIdList, @Required String riddleList) {
+        String[] tableIds = Tools.split(tableIdList, "table id can't null");
+        String[] riddles = Tools.split(riddleList, "riddle can't null");
+        Utils.require(tableIds.length == riddles.length, "table id and riddle count not match");
+        Utils.require(tableIds.length <= BATCH_TABLE_SIZE, "table count can't exceed " + BATCH_TABLE_SIZE);
+        StringBuilder res = new StringBuilder();
+        for (int i = 0; i < tableIds.length; i++) {
+            if (res.length() > 0) {
+                res.append(",");
+            }
+            res.append(getSettleProgress(reveal(Tools.parseLong(tableIds[i], "table id format error"), Tools.parseLong(riddles[i], "riddle format error"))));
         }
+        return res.insert(0, "[").append("]").toString();
+    }
+
+    /**
+     * 继续清算已公布谜底的游戏桌
+     * 每次最多清算<SETTLE_BATCH_SIZE>个玩家，任何人都可以调用
+     *
+     * @param tableId
+     * @return
+     */
+    public String settle(@Required Long tableId) {
+        Tools.requireNonNull(tableId, "table id can't null");
+        GameTable gt = checkGameTableAndGet(tableId, GameStatus.SETTLING);
+        return settleBatch(gt);
+    }
+
+    /**
+     * 清算一批玩家，最后一批清算完成后结算庄家收益及手续费
+     *
+     * @param gt
+     * @return
+     */
+    private String settleBatch(GameTable gt) {
+        recordChange(gt);
         //开始清算赌资
         //1.遍历玩家列表，猜中的，首先庄家资产中划转对应数量出来，分别计算玩家赢的数量转入到玩家资产中，计算出合约手续费到累计变量中，剩余数量累计到系统提成变量中
         //1.1.如果本轮庄家收益为0，需要额外保存庄家补偿
         //2.猜错的，从玩家赌注中转入庄家赌注
         //3.从庄家赌注中减去庄家押金部分，如果大于0则证明庄家由盈利，盈利部分再计算一次合约手续费提成和系统提成，剩余部分转入庄家地址
         //4.将合约收付费和系统提成转入对应地址
-        //庄家支付的押金总额
-        BigInteger bankerWager = maxWagerTotal;
-        //合约创建者手续费收益
-        BigInteger contractFeeTotal = BigInteger.ZERO;
-        //系统提成收益
-        BigInteger systemCompensation = BigInteger.ZERO;
-        //庄家补偿金额
-        BigInteger bankerCompensation = BigInteger.ZERO;
-        for (Player player : playerList) {
+        TransferEvent event = new TransferEvent();
+        List<Player> playerList = gt.getPlayerList();
+        Settlement settlement = gt.getSettlement();
+        int anwser = gt.getAnswer();
+        //玩家收益百分比
+        BigDecimal winEarningsPer = getWinEarningsPer();
+        //保存是否触发庄家补偿
+        boolean bankerCompensationFlag = settlement.isBankerCompensationFlag();
+        if (bankerCompensationFlag) {
+            winEarningsPer = winEarningsPer.subtract(GuessCoinContract.BANKER_COMPENSATION);
+        }
+        //庄家赌注、合约手续费、系统提成、庄家补偿从上一批清算的累计值继续计算
+        BigInteger bankerWager = settlement.getBankerWager();
+        BigInteger contractFeeTotal = settlement.getContractFeeTotal();
+        BigInteger systemCompensation = settlement.getSystemCompensation();
+        BigInteger bankerCompensation = settlement.getBankerCompensation();
+        //本批清算的玩家赌注总额
+        BigInteger settledWagerTotal = BigInteger.ZERO;
+        int endIndex = Math.min(playerList.size(), settlement.getIndex() + SETTLE_BATCH_SIZE);
+        for (int i = settlement.getIndex(); i < endIndex; i++) {
+            Player player = playerList.get(i);
+            settledWagerTotal = settledWagerTotal.add(player.getWager());
             //玩家获胜
             if (player.getAnswer() == anwser) {
                 //首先从庄家押金中减去对应数量的赌注
@@ -374,16 +895,45 @@ public class GuessCoinContract implements Contract {
                 }
                 //系统收益
                 systemCompensation = systemCompensation.add(playerWager.toBigInteger().subtract(winAmount).subtract(contractFeeNumber).subtract(bankerCompensationNumber));
-                //转账到玩家账户 押金+赢的数量
-                player.getAddres().transfer(player.getWager());
+                Statistics statistics = getStatistics(player.getAddres());
+                statistics.addWin(winAmount);
+                statistics.addFee(playerWager.toBigInteger().subtract(winAmount).subtract(bankerCompensationNumber));
+                updateLeaderboard(player.getAddres());
+                //记入玩家余额 押金+赢的数量
+                addPlayerBalance(player.getAddres(), player.getWager());
             } else {
                 //庄家获胜
                 //将玩家赌注划转到庄家赌注中
                 bankerWager = bankerWager.add(player.getWager());
                 event.putPlayer(player.getAddres(), player.getWager().negate());
+                getStatistics(player.getAddres()).addLose(player.getWager());
+                updateLeaderboard(player.getAddres());
                 player.setWager(BigInteger.ZERO);
             }
         }
+        //更新负债统计：已清算的玩家赌注转为玩家余额、庄家一方资产及待支付手续费
+        BigInteger pendingFee = contractFeeTotal.add(systemCompensation).add(bankerCompensation);
+        playerWagerTotal = playerWagerTotal.subtract(settledWagerTotal);
+        tableDepositTotal = tableDepositTotal.add(bankerWager.subtract(settlement.getBankerWager()));
+        pendingFeeTotal = pendingFeeTotal.add(pendingFee)
+                .subtract(settlement.getContractFeeTotal())
+                .subtract(settlement.getSystemCompensation())
+                .subtract(settlement.getBankerCompensation());
+        //还有玩家未清算，保存本批清算进度，等待下一次调用
+        if (endIndex < playerList.size()) {
+            settlement.setIndex(endIndex);
+            settlement.setBankerWager(bankerWager);
+            settlement.setContractFeeTotal(contractFeeTotal);
+            settlement.setSystemCompensation(systemCompensation);
+            settlement.setBankerCompensation(bankerCompensation);
+            Utils.emit(event);
+            return getSettleProgress(gt);
+        }
+        Address banker = gt.getBanker();
+        BigInteger maxWagerTotal = gt.getMaxWagerTotal();
+        //庄家一方资产及待支付手续费在下面全部支付
+        tableDepositTotal = tableDepositTotal.subtract(bankerWager);
+        pendingFeeTotal = pendingFeeTotal.subtract(pendingFee);
         //计算庄家应该支付的各种手续费，庄家的金额 = 庄家赌注 - （庄家赌注 - 庄家押金） * 系统提成 - （庄家赌注 - 庄家押金） * 合约手续费 + 庄家补偿
         //判断庄家在本轮是否赔钱
         //小于maxWagerTotal时，庄家赔钱
@@ -393,16 +943,18 @@ public class GuessCoinContract implements Contract {
             case -1: {
                 //判断押金是否全部赔完
                 if (bankerWager.compareTo(BigInteger.ZERO) == 1) {
-                    banker.transfer(bankerWager);
+                    payBanker(gt, bankerWager);
                     event.putPlayer(banker,bankerWager.subtract(maxWagerTotal));
                 }
+                getStatistics(banker).addBankerLose(maxWagerTotal.subtract(bankerWager));
                 break;
             }
             case 0: {
                 //支付庄家补偿和退回押金
-                banker.transfer(bankerCompensation.add(maxWagerTotal));
+                payBanker(gt, bankerCompensation.add(maxWagerTotal));
                 event.setBankerCompensation(bankerCompensation);
                 event.putPlayer(banker,BigInteger.ZERO);
+                getStatistics(banker).addBankerWin(bankerCompensation);
                 break;
             }
             case 1: {
@@ -419,33 +971,18 @@ public class GuessCoinContract implements Contract {
                 }
                 systemCompensation = systemCompensation.add(bankerEarnings.toBigInteger().subtract(bankerRealEarnings).subtract(contractFeeNumber));
                 //将庄家的押金及收益转到庄家账户中
-                banker.transfer(maxWagerTotal.add(bankerRealEarnings));
+                payBanker(gt, maxWagerTotal.add(bankerRealEarnings));
                 event.putPlayer(banker,bankerRealEarnings);
+                Statistics bankerStatistics = getStatistics(banker);
+                bankerStatistics.addBankerWin(bankerRealEarnings);
+                bankerStatistics.addFee(bankerEarnings.toBigInteger().subtract(bankerRealEarnings));
             }
             default:
         }
-//        if( == -1){
-//            //如果赔完玩家的赌注以后押金还有剩余，需要退回到庄家账户
-//
-//        }else{
-//            //计算出庄家从玩家手上赢得的金额
-//            BigDecimal bankerEarnings = new BigDecimal(bankerWager.subtract(maxWagerTotal));
-//            //减去相关手续费后，庄家能获取的资金百分比
-//            BigDecimal bankerEarningsPer = BigDecimal.ONE.subtract(contractFee).subtract(GuessCoinContract.SYSTEM_COMPENSATION);
-//            //实际需要转给庄家的金额
-//            BigInteger bankerRealEarnings = bankerEarnings.multiply(bankerEarningsPer).toBigInteger();
-//            BigInteger contractFeeNumber = BigInteger.ZERO;
-//            if(!contractFee.equals(BigDecimal.ZERO)){
-//                contractFeeNumber = bankerEarnings.multiply(contractFee).toBigInteger();
-//                contractFeeTotal = contractFeeTotal.add(contractFeeNumber);
-//            }
-//            systemCompensation = systemCompensation.add(bankerEarnings.toBigInteger().subtract(bankerRealEarnings).subtract(contractFeeNumber));
-//            //将庄家的押金及收益转到庄家账户中
-//            banker.transfer(maxWagerTotal.add(bankerRealEarnings));
-//        }
+        updateLeaderboard(banker);
+        //系统提成按比例应得的部分为 赢家赌注及庄家收益 * 系统提成
+        addRoundingDust(systemCompensation, gt.getWagerTotal(anwser).add(bankerWager.subtract(maxWagerTotal).max(BigInteger.ZERO)));
         //支付系统提成
-//        Utils.emit(new TestEvent(systemCompensation.intValue()));
-//        Utils.emit(new TestEvent(contractFeeTotal.intValue()));
         if (systemCompensation.compareTo(BigInteger.ZERO) == 1) {
             systemAddress.transfer(systemCompensation);
             event.setSystemCompensation(systemCompensation);
@@ -457,10 +994,232 @@ public class GuessCoinContract implements Contract {
         }
         Utils.emit(event);
         //更新合约状态
+        gt.setSettlement(null);
         gt.setStatus(GameStatus.DONE);
-        gt.setRiddle(riddle);
-        gt.setAnswer(anwser);
-        return gt.toString();
+        return getSettleProgress(gt);
+    }
+
+    /**
+     * 清算进度
+     * 不输出玩家列表，保证每次清算调用的工作量与玩家总数无关
+     *
+     * @param gt
+     * @return
+     */
+    private String getSettleProgress(GameTable gt) {
+        Settlement settlement = gt.getSettlement();
+        int playerCount = gt.getPlayerList().size();
+        return new StringBuilder("{")
+                .append("\"id\":")
+                .append(gt.getId())
+                .append(",\"status\":")
+                .append(gt.getStatus())
+                .append(",\"settleIndex\":")
+                .append(settlement == null ? playerCount : settlement.getIndex())
+                .append(",\"playerCount\":")
+                .append(playerCount)
+                .append('}').toString();
+    }
+
+    /**
+     * 预览游戏桌分别开出背面和正面时的清算结果
+     * 通过玩家加入时累计的两面赌注及取整后的收益、手续费计算，与done的清算结果一致，无需遍历玩家列表
+     * 只能预览等待加入或正在清算的游戏桌，已结束的游戏桌以实际清算结果为准
+     *
+     * @param tableId
+     * @return 按答案0（背面）、1（正面）顺序的清算结果列表
+     */
+    @View
+    public String getSettlementPreview(@Required Long tableId) {
+        Tools.requireNonNull(tableId, "table id can't null");
+        Utils.require(tableList.containsKey(tableId), "table id error");
+        GameTable gt = tableList.get(tableId);
+        Utils.require(gt.getStatus().equals(GameStatus.WATING_JOIN) || gt.getStatus().equals(GameStatus.SETTLING), "table status error");
+        return new StringBuilder("[")
+                .append(previewSettlement(gt, 0))
+                .append(",")
+                .append(previewSettlement(gt, 1))
+                .append("]").toString();
+    }
+
+    /**
+     * 计算开出指定答案时的清算结果，计算方式同settleBatch
+     *
+     * @param gt
+     * @param anwser
+     * @return
+     */
+    private String previewSettlement(GameTable gt, int anwser) {
+        BigInteger maxWagerTotal = gt.getMaxWagerTotal();
+        SideTotal winTotal = gt.getSideTotal(anwser);
+        SideTotal loseTotal = gt.getSideTotal(1 - anwser);
+        //猜错的赌注归庄家，猜中的赌注由庄家赔付，庄家收益为0时触发庄家补偿
+        boolean bankerCompensationFlag = !gt.getPlayerList().isEmpty() && winTotal.getWager().equals(loseTotal.getWager());
+        BigInteger winAmount = bankerCompensationFlag ? winTotal.getCompensatedWinAmount() : winTotal.getWinAmount();
+        BigInteger contractFeeTotal = winTotal.getContractFee();
+        BigInteger bankerCompensation = bankerCompensationFlag ? winTotal.getBankerCompensation() : BigInteger.ZERO;
+        BigInteger systemCompensation = winTotal.getWager().subtract(winAmount).subtract(contractFeeTotal).subtract(bankerCompensation);
+        BigInteger bankerWager = maxWagerTotal.subtract(winTotal.getWager()).add(loseTotal.getWager());
+        //庄家本轮的收益，亏损时为负数
+        BigInteger bankerEarnings;
+        switch (bankerWager.compareTo(maxWagerTotal)) {
+            case -1: {
+                bankerEarnings = bankerWager.max(BigInteger.ZERO).subtract(maxWagerTotal);
+                break;
+            }
+            case 1: {
+                BigDecimal earnings = new BigDecimal(bankerWager.subtract(maxWagerTotal));
+                BigDecimal bankerEarningsPer = BigDecimal.ONE.subtract(contractFee).subtract(GuessCoinContract.SYSTEM_COMPENSATION);
+                bankerEarnings = earnings.multiply(bankerEarningsPer).toBigInteger();
+                BigInteger contractFeeNumber = BigInteger.ZERO;
+                if (!contractFee.equals(BigDecimal.ZERO)) {
+                    contractFeeNumber = earnings.multiply(contractFee).toBigInteger();
+                    contractFeeTotal = contractFeeTotal.add(contractFeeNumber);
+                }
+                systemCompensation = systemCompensation.add(earnings.toBigInteger().subtract(bankerEarnings).subtract(contractFeeNumber));
+                break;
+            }
+            default:
+                bankerEarnings = bankerCompensation;
+        }
+        return new StringBuilder("{")
+                .append("\"answer\":")
+                .append(anwser)
+                .append(",\"bankerEarnings\":")
+                .append(bankerEarnings)
+                .append(",\"winnerWagerTotal\":")
+                .append(winTotal.getWager())
+                .append(",\"winnerEarnings\":")
+                .append(winAmount)
+                .append(",\"winnerPayout\":")
+                .append(winTotal.getWager().add(winAmount))
+                .append(",\"systemCompensation\":")
+                .append(systemCompensation)
+                .append(",\"contractFee\":")
+                .append(contractFeeTotal)
+                .append(",\"bankerCompensation\":")
+                .append(bankerCompensation)
+                .append('}').toString();
+    }
+
+    /**
+     * 查询合约负债
+     * 负债总额 = 未清算游戏桌庄家一方资产 + 未清算玩家赌注 + 待支付手续费 + 庄家资金池余额 + 玩家余额
+     *
+     * @return
+     */
+    @View
+    public String getLiabilities() {
+        return new StringBuilder("{")
+                .append("\"tableDepositTotal\":")
+                .append(tableDepositTotal)
+                .append(",\"playerWagerTotal\":")
+                .append(playerWagerTotal)
+                .append(",\"pendingFeeTotal\":")
+                .append(pendingFeeTotal)
+                .append(",\"bankrollTotal\":")
+                .append(bankrollTotal)
+                .append(",\"balanceTotal\":")
+                .append(balanceTotal)
+                .append(",\"liabilityTotal\":")
+                .append(getLiabilityTotal())
+                .append(",\"contractBalance\":")
+                .append(Msg.address().balance())
+                .append(",\"roundingDust\":")
+                .append(roundingDust.toPlainString())
+                .append('}').toString();
+    }
+
+    /**
+     * 校验负债统计与合约状态是否一致
+     * 遍历全部游戏桌、庄家资金池及玩家余额重新计算负债，与增量维护的负债统计比对，并检查合约余额是否足以覆盖负债
+     *
+     * @return
+     */
+    @View
+    public String checkConsistency() {
+        BigInteger deposit = BigInteger.ZERO;
+        BigInteger wager = BigInteger.ZERO;
+        BigInteger pendingFee = BigInteger.ZERO;
+        for (GameTable gt : tableList.values()) {
+            int start;
+            if (gt.getStatus().equals(GameStatus.WATING_JOIN)) {
+                deposit = deposit.add(gt.getMaxWagerTotal());
+                start = 0;
+            } else if (gt.getStatus().equals(GameStatus.SETTLING)) {
+                Settlement settlement = gt.getSettlement();
+                deposit = deposit.add(settlement.getBankerWager());
+                pendingFee = pendingFee.add(settlement.getContractFeeTotal())
+                        .add(settlement.getSystemCompensation())
+                        .add(settlement.getBankerCompensation());
+                start = settlement.getIndex();
+            } else {
+                continue;
+            }
+            List<Player> playerList = gt.getPlayerList();
+            for (int i = start; i < playerList.size(); i++) {
+                wager = wager.add(playerList.get(i).getWager());
+            }
+        }
+        BigInteger bankroll = BigInteger.ZERO;
+        for (BigInteger amount : bankrollList.values()) {
+            bankroll = bankroll.add(amount);
+        }
+        BigInteger balance = BigInteger.ZERO;
+        for (BigInteger amount : balanceList.values()) {
+            balance = balance.add(amount);
+        }
+        boolean consistent = deposit.equals(tableDepositTotal)
+                && wager.equals(playerWagerTotal)
+                && pendingFee.equals(pendingFeeTotal)
+                && bankroll.equals(bankrollTotal)
+                && balance.equals(balanceTotal);
+        BigInteger contractBalance = Msg.address().balance();
+        return new StringBuilder("{")
+                .append("\"consistent\":")
+                .append(consistent)
+                .append(",\"solvent\":")
+                .append(contractBalance.compareTo(getLiabilityTotal()) >= 0)
+                .append(",\"tableDepositTotal\":")
+                .append(deposit)
+                .append(",\"playerWagerTotal\":")
+                .append(wager)
+                .append(",\"pendingFeeTotal\":")
+                .append(pendingFee)
+                .append(",\"bankrollTotal\":")
+                .append(bankroll)
+                .append(",\"balanceTotal\":")
+                .append(balance)
+                .append(",\"contractBalance\":")
+                .append(contractBalance)
+                .append('}').toString();
+    }
+
+    private BigInteger getLiabilityTotal() {
+        return tableDepositTotal.add(playerWagerTotal).add(pendingFeeTotal).add(bankrollTotal).add(balanceTotal);
+    }
+
+    /**
+     * 累计清算取整产生的系统提成零头
+     *
+     * @param systemCompensation 实际支付的系统提成
+     * @param base               按比例计算系统提成的基数
+     */
+    private void addRoundingDust(BigInteger systemCompensation, BigInteger base) {
+        roundingDust = roundingDust.add(new BigDecimal(systemCompensation).subtract(new BigDecimal(base).multiply(GuessCoinContract.SYSTEM_COMPENSATION)));
+    }
+
+    /**
+     * 玩家猜中时的收益百分比
+     *
+     * @return
+     */
+    private BigDecimal getWinEarningsPer() {
+        return BigDecimal.ONE
+                //减掉系统提成
+                .subtract(GuessCoinContract.SYSTEM_COMPENSATION)
+                //减掉合约手续费
+                .subtract(contractFee);
     }
 
     /**
@@ -477,6 +1236,197 @@ public class GuessCoinContract implements Contract {
         return gt;
     }
 
+    /**
+     * 查询地址的统计数据
+     * 包括开设游戏桌数量、下注、输赢、手续费及庄家出局次数
+     *
+     * @param address
+     * @return
+     */
+    @View
+    public String getAddressStatistics(@Required String address) {
+        Tools.requireNonNull(address, "address can't null");
+        Statistics statistics = statisticsList.get(new Address(address));
+        return (statistics == null ? new Statistics() : statistics).toString();
+    }
+
+    /**
+     * 查询排行榜
+     * 包括玩家净收益、玩家下注总额、庄家净收益、庄家押金总额四个排行榜
+     * 下注总额和押金总额排行榜是准确的，净收益排行榜为近似结果，见Leaderboard
+     *
+     * @return
+     */
+    @View
+    public String getLeaderboard() {
+        return new StringBuilder("{")
+                .append("\"topWinners\":")
+                .append(topWinners)
+                .append(",\"topPlayerVolume\":")
+                .append(topPlayerVolume)
+                .append(",\"topBankers\":")
+                .append(topBankers)
+                .append(",\"topBankerVolume\":")
+                .append(topBankerVolume)
+                .append('}').toString();
+    }
+
+    /**
+     * 按地址最新的统计数据更新排行榜
+     *
+     * @param address
+     */
+    private void updateLeaderboard(Address address) {
+        Statistics statistics = getStatistics(address);
+        topWinners.update(address, statistics.getWinTotal().subtract(statistics.getLoseTotal()));
+        topPlayerVolume.update(address, statistics.getWagerTotal());
+        topBankers.update(address, statistics.getBankerWinTotal().subtract(statistics.getBankerLoseTotal()));
+        topBankerVolume.update(address, statistics.getBankerWagerTotal());
+    }
+
+    private Statistics getStatistics(Address address) {
+        Statistics statistics = statisticsList.get(address);
+        if (statistics == null) {
+            statistics = new Statistics();
+            statisticsList.put(address, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * 按游戏桌两面的赌注总额更新剩余容量索引
+     * 某一面的剩余容量 = 押金 - 该面赌注总额 + 对立面赌注总额
+     *
+     * @param gt
+     */
+    private void updateCapacityIndex(GameTable gt) {
+        BigInteger front = gt.getMaxWagerTotal().subtract(gt.getFrontWagerTotal()).add(gt.getBackWagerTotal());
+        BigInteger back = gt.getMaxWagerTotal().subtract(gt.getBackWagerTotal()).add(gt.getFrontWagerTotal());
+        frontCapacityIndex.update(gt.getId(), front);
+        backCapacityIndex.update(gt.getId(), back);
+    }
+
+    /**
+     * 游戏桌离开等待加入状态时调用，移出剩余容量索引并更新进行中的游戏桌数量
+     *
+     * @param gt
+     */
+    private void closeGameTable(GameTable gt) {
+        removeCapacityIndex(gt);
+        activeTableCount--;
+    }
+
+    private void removeCapacityIndex(GameTable gt) {
+        frontCapacityIndex.remove(gt.getId());
+        backCapacityIndex.remove(gt.getId());
+    }
+
+    /**
+     * 记录游戏桌在当前区块高度发生变更
+     * 同一区块内多次变更只保留一条记录
+     *
+     * @param gt
+     */
+    private void recordChange(GameTable gt) {
+        Long height = Block.number();
+        if (height.equals(gt.getLastModifiedHeight())) {
+            return;
+        }
+        gt.setLastModifiedHeight(height);
+        changeTableIdList.add(gt.getId());
+        changeHeightList.add(height);
+    }
+
+    /**
+     * 向庄家支付押金及收益
+     * 押金来自资金池的游戏桌记回资金池，否则直接转账给庄家
+     *
+     * @param gt
+     * @param amount
+     */
+    private void payBanker(GameTable gt, BigInteger amount) {
+        if (gt.isBankroll()) {
+            addBankroll(gt.getBanker(), amount);
+        } else {
+            gt.getBanker().transfer(amount);
+        }
+    }
+
+    /**
+     * 从调用者的资金池中预留游戏桌押金
+     * 调用时转入的资产先存入资金池
+     *
+     * @param maxWagerTotal 每个游戏桌的押金
+     * @param tableCount    游戏桌数量
+     */
+    private void takeBankroll(BigInteger maxWagerTotal, int tableCount) {
+        Tools.requireNonNull(maxWagerTotal, "maxWagerTotal can't null");
+        Utils.require(maxWagerTotal.compareTo(MIN_WAGER) >= 0, "wager not be less than " + MIN_WAGER);
+        Address banker = Msg.sender();
+        BigInteger value = Msg.value();
+        if (value != null && value.compareTo(BigInteger.ZERO) == 1) {
+            addBankroll(banker, value);
+        }
+        BigInteger bankroll = getBankrollBalance(banker);
+        BigInteger total = maxWagerTotal.multiply(BigInteger.valueOf(tableCount));
+        Utils.require(bankroll.compareTo(total) >= 0, "bankroll not enough");
+        setBankrollBalance(banker, bankroll.subtract(total));
+    }
+
+    private BigInteger addBankroll(Address banker, BigInteger amount) {
+        BigInteger balance = getBankrollBalance(banker).add(amount);
+        setBankrollBalance(banker, balance);
+        return balance;
+    }
+
+    private void setBankrollBalance(Address banker, BigInteger balance) {
+        bankrollTotal = bankrollTotal.subtract(getBankrollBalance(banker)).add(balance);
+        if (balance.equals(BigInteger.ZERO)) {
+            bankrollList.remove(banker);
+        } else {
+            bankrollList.put(banker, balance);
+        }
+    }
+
+    private BigInteger getBankrollBalance(Address banker) {
+        BigInteger balance = bankrollList.get(banker);
+        return balance == null ? BigInteger.ZERO : balance;
+    }
+
+    private void addPlayerBalance(Address player, BigInteger amount) {
+        setPlayerBalance(player, getPlayerBalance(player).add(amount));
+    }
+
+    /**
+     * 从调用者余额中扣除赌注
+     *
+     * @param wager
+     * @return
+     */
+    private BigInteger takeBalance(BigInteger wager) {
+        Tools.requireNonNull(wager, "wager can't null");
+        Utils.require(wager.compareTo(MIN_WAGER) >= 0, "wager not be less than " + MIN_WAGER);
+        Address player = Msg.sender();
+        BigInteger balance = getPlayerBalance(player);
+        Utils.require(balance.compareTo(wager) >= 0, "balance not enough");
+        setPlayerBalance(player, balance.subtract(wager));
+        return wager;
+    }
+
+    private void setPlayerBalance(Address player, BigInteger balance) {
+        balanceTotal = balanceTotal.subtract(getPlayerBalance(player)).add(balance);
+        if (balance.equals(BigInteger.ZERO)) {
+            balanceList.remove(player);
+        } else {
+            balanceList.put(player, balance);
+        }
+    }
+
+    private BigInteger getPlayerBalance(Address player) {
+        BigInteger balance = balanceList.get(player);
+        return balance == null ? BigInteger.ZERO : balance;
+    }
+
     private BigInteger getWagerForPaying() {
         BigInteger wager = Msg.value();
         Tools.requireNonNull(wager, "wager can't null");
@@ -14,4 +14,44 @@ public class Tools {
         Utils.require(obj != null,msg);
     }
 
+    /**
+     * 拆分以逗号分隔的参数列表，去掉每项前后的空白
+     * 任何一项为空（包括首尾多余的逗号）都会校验失败
+     *
+     * @param str
+     * @param msg 参数为空时的错误信息
+     * @return
+     */
+    public static String[] split(String str, String msg) {
+        requireNonNull(str, msg);
+        String[] items = str.split(",", -1);
+        for (int i = 0; i < items.length; i++) {
+            items[i] = items[i].trim();
+            Utils.require(items[i].length() > 0, msg);
+        }
+        return items;
+    }
+
+    /**
+     * 将字符串转换为Long，格式错误或超出Long范围时校验失败
+     *
+     * @param str
+     * @param msg 格式错误时的错误信息
+     * @return
+     */
+    public static Long parseLong(String str, String msg) {
+        requireNonNull(str, msg);
+        boolean negative = str.startsWith("-");
+        String digits = negative ? str.substring(1) : str;
+        Utils.require(digits.length() > 0 && digits.length() <= 19, msg);
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            Utils.require(c >= '0' && c <= '9', msg);
+        }
+        if (digits.length() == 19) {
+            Utils.require(digits.compareTo(negative ? "9223372036854775808" : "9223372036854775807") <= 0, msg);
+        }
+        return Long.valueOf(str);
+    }
+
 }
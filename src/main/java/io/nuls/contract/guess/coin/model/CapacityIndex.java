@@ -0,0 +1,99 @@
+package io.nuls.contract.guess.coin.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author: wangdaijing
+ * @Time: 2019-03-07 15:30
+ * @Description: 游戏桌剩余可下注容量索引
+ * 按剩余容量从大到小、容量相同时按游戏桌id从小到大保存等待加入的游戏桌，通过二分查找定位
+ * 排序键唯一，插入和删除都可通过二分查找直接定位，列表插入删除的移动仍与索引中的游戏桌数量成正比
+ */
+public class CapacityIndex {
+
+    /**
+     * 按剩余容量从大到小、游戏桌id从小到大排列的游戏桌id
+     */
+    private List<Long> tableIdList = new ArrayList<>();
+
+    /**
+     * 游戏桌当前的剩余容量
+     */
+    private Map<Long, BigInteger> capacityList = new HashMap<>();
+
+    /**
+     * 更新游戏桌的剩余容量
+     *
+     * @param tableId
+     * @param capacity
+     */
+    public void update(Long tableId, BigInteger capacity) {
+        remove(tableId);
+        tableIdList.add(search(capacity, tableId), tableId);
+        capacityList.put(tableId, capacity);
+    }
+
+    /**
+     * 从索引中移除游戏桌
+     *
+     * @param tableId
+     */
+    public void remove(Long tableId) {
+        BigInteger capacity = capacityList.get(tableId);
+        if (capacity == null) {
+            return;
+        }
+        tableIdList.remove(search(capacity, tableId));
+        capacityList.remove(tableId);
+    }
+
+    /**
+     * 查找(capacity, tableId)在索引中的位置，不存在时为应插入的位置
+     *
+     * @param capacity
+     * @param tableId
+     * @return
+     */
+    private int search(BigInteger capacity, Long tableId) {
+        int low = 0;
+        int high = tableIdList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Long midTableId = tableIdList.get(mid);
+            int compare = capacityList.get(midTableId).compareTo(capacity);
+            if (compare > 0 || (compare == 0 && midTableId.compareTo(tableId) < 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return tableIdList.size();
+    }
+
+    /**
+     * 按剩余容量从大到小的顺序获取游戏桌id
+     *
+     * @param index
+     * @return
+     */
+    public Long getTableId(int index) {
+        return tableIdList.get(index);
+    }
+
+    public BigInteger getCapacity(Long tableId) {
+        return capacityList.get(tableId);
+    }
+
+    @Override
+    public String toString() {
+        return capacityList.toString();
+    }
+}
@@ -21,5 +21,10 @@ public final class GameStatus {
      */
     public static final Integer BANKER_OUT = 3;
 
+    /**
+     * 庄家已公布谜底，正在分批清算
+     */
+    public static final Integer SETTLING = 4;
+
 
 }
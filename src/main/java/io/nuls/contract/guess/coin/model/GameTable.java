@@ -1,9 +1,9 @@
 package io.nuls.contract.guess.coin.model;
 
 import io.nuls.contract.sdk.Address;
-import io.nuls.contract.sdk.Msg;
 import io.nuls.contract.sdk.Utils;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
@@ -58,16 +58,43 @@ public class GameTable {
      */
     private Integer status;
 
+    /**
+     * 押金是否从庄家资金池中预留
+     * 为true时，清算后退回庄家的押金及收益记入资金池，不直接转账
+     */
+    private boolean bankroll;
+
+    /**
+     * 猜正面的赌注累计
+     */
+    private SideTotal frontTotal = new SideTotal();
+
+    /**
+     * 猜背面的赌注累计
+     */
+    private SideTotal backTotal = new SideTotal();
+
+    /**
+     * 分批清算进度，庄家公布谜底后生成
+     */
+    private Settlement settlement;
+
+    /**
+     * 最后一次变更（开盘、玩家加入、清算）的区块高度
+     */
+    private Long lastModifiedHeight;
+
 
     private List<Player> playerList;
 
 
-    public GameTable(Long id, Address banker, String riddleHash, BigInteger maxWagerTotal, Long endBlockHeight) {
+    public GameTable(Long id, Address banker, String riddleHash, BigInteger maxWagerTotal, Long endBlockHeight, boolean bankroll) {
         this.id = id;
         this.banker = banker;
         this.riddleHash = riddleHash;
         this.maxWagerTotal = maxWagerTotal;
         this.endBlockHeight = endBlockHeight;
+        this.bankroll = bankroll;
         this.playerList = new ArrayList<>();
         this.status = GameStatus.WATING_JOIN;
     }
@@ -78,20 +105,37 @@ public class GameTable {
      * 会判定是否已超过庄家可用赌注上限
      *
      * @param player
+     * @param winEarningsPer 玩家收益百分比（已减掉系统提成和合约手续费）
+     * @param contractFee    合约手续费百分比
+     * @param bankerCompensation 庄家补偿百分比
      * @return
      */
-    public void join(Player player) {
-        BigInteger playerTotalWager = Msg.value();
-        for (Player otherPlayer : playerList) {
-            Utils.require(playerTotalWager.abs().compareTo(maxWagerTotal) < 1, "赌注大于最大可下注数量");
-            //计算其他玩家下注的数量，考虑到玩家猜测的结果不一致，会出现有输有赢的情况，所以计算已使用的下注数量时，应将选择对立面的赌注金额抵消掉
-            if (otherPlayer.getAnswer() == player.getAnswer()) {
-                playerTotalWager = playerTotalWager.add(otherPlayer.getWager());
-            } else {
-                playerTotalWager = playerTotalWager.subtract(otherPlayer.getWager());
-            }
-        }
+    public void join(Player player, BigDecimal winEarningsPer, BigDecimal contractFee, BigDecimal bankerCompensation) {
+        //计算已使用的下注数量时，考虑到玩家猜测的结果不一致，会出现有输有赢的情况，所以应将选择对立面的赌注金额抵消掉
+        BigInteger playerTotalWager = getWagerTotal(player.getAnswer()).add(player.getWager()).subtract(getWagerTotal(1 - player.getAnswer()));
+        Utils.require(playerTotalWager.abs().compareTo(maxWagerTotal) < 1, "赌注大于最大可下注数量");
         playerList.add(player);
+        getSideTotal(player.getAnswer()).add(player.getWager(), winEarningsPer, contractFee, bankerCompensation);
+    }
+
+    /**
+     * 获取猜某一面的赌注总额
+     *
+     * @param answer 1为正面，0为背面
+     * @return
+     */
+    public BigInteger getWagerTotal(int answer) {
+        return getSideTotal(answer).getWager();
+    }
+
+    /**
+     * 获取猜某一面的赌注累计
+     *
+     * @param answer 1为正面，0为背面
+     * @return
+     */
+    public SideTotal getSideTotal(int answer) {
+        return answer == 1 ? frontTotal : backTotal;
     }
 
 
@@ -151,6 +195,38 @@ public class GameTable {
         this.status = status;
     }
 
+    public boolean isBankroll() {
+        return bankroll;
+    }
+
+    public void setBankroll(boolean bankroll) {
+        this.bankroll = bankroll;
+    }
+
+    public BigInteger getFrontWagerTotal() {
+        return frontTotal.getWager();
+    }
+
+    public BigInteger getBackWagerTotal() {
+        return backTotal.getWager();
+    }
+
+    public Settlement getSettlement() {
+        return settlement;
+    }
+
+    public void setSettlement(Settlement settlement) {
+        this.settlement = settlement;
+    }
+
+    public Long getLastModifiedHeight() {
+        return lastModifiedHeight;
+    }
+
+    public void setLastModifiedHeight(Long lastModifiedHeight) {
+        this.lastModifiedHeight = lastModifiedHeight;
+    }
+
     public List<Player> getPlayerList() {
         return playerList;
     }
@@ -171,6 +247,7 @@ public class GameTable {
         GameTable gameTable = (GameTable) o;
 
         if (answer != gameTable.answer) return false;
+        if (bankroll != gameTable.bankroll) return false;
         if (id != null ? !id.equals(gameTable.id) : gameTable.id != null) return false;
         if (banker != null ? !banker.equals(gameTable.banker) : gameTable.banker != null) return false;
         if (riddleHash != null ? !riddleHash.equals(gameTable.riddleHash) : gameTable.riddleHash != null) return false;
@@ -180,6 +257,11 @@ public class GameTable {
         if (endBlockHeight != null ? !endBlockHeight.equals(gameTable.endBlockHeight) : gameTable.endBlockHeight != null)
             return false;
         if (status != null ? !status.equals(gameTable.status) : gameTable.status != null) return false;
+        if (!frontTotal.equals(gameTable.frontTotal)) return false;
+        if (!backTotal.equals(gameTable.backTotal)) return false;
+        if (settlement != null ? !settlement.equals(gameTable.settlement) : gameTable.settlement != null) return false;
+        if (lastModifiedHeight != null ? !lastModifiedHeight.equals(gameTable.lastModifiedHeight) : gameTable.lastModifiedHeight != null)
+            return false;
         return playerList != null ? playerList.equals(gameTable.playerList) : gameTable.playerList == null;
     }
 
@@ -193,11 +275,42 @@ public class GameTable {
         result = 31 * result + (maxWagerTotal != null ? maxWagerTotal.hashCode() : 0);
         result = 31 * result + (endBlockHeight != null ? endBlockHeight.hashCode() : 0);
         result = 31 * result + (status != null ? status.hashCode() : 0);
+        result = 31 * result + (bankroll ? 1 : 0);
+        result = 31 * result + frontTotal.hashCode();
+        result = 31 * result + backTotal.hashCode();
+        result = 31 * result + (settlement != null ? settlement.hashCode() : 0);
+        result = 31 * result + (lastModifiedHeight != null ? lastModifiedHeight.hashCode() : 0);
         result = 31 * result + (playerList != null ? playerList.hashCode() : 0);
         return result;
     }
 
 
+    /**
+     * 游戏桌摘要，不包含玩家列表
+     *
+     * @return
+     */
+    public String toSummaryString() {
+        return new StringBuilder("{")
+                .append("\"id\":")
+                .append(id)
+                .append(",\"status\":")
+                .append(status)
+                .append(",\"lastModifiedHeight\":")
+                .append(lastModifiedHeight)
+                .append(",\"maxWagerTotal\":")
+                .append(maxWagerTotal)
+                .append(",\"endBlockHeight\":")
+                .append(endBlockHeight)
+                .append(",\"frontWagerTotal\":")
+                .append(getFrontWagerTotal())
+                .append(",\"backWagerTotal\":")
+                .append(getBackWagerTotal())
+                .append(",\"playerCount\":")
+                .append(playerList.size())
+                .append('}').toString();
+    }
+
     @Override
     public String toString() {
         return new StringBuilder("{")
@@ -217,6 +330,16 @@ public class GameTable {
                 .append(endBlockHeight)
                 .append(",\"status\":")
                 .append(status)
+                .append(",\"bankroll\":")
+                .append(bankroll)
+                .append(",\"frontTotal\":")
+                .append(frontTotal)
+                .append(",\"backTotal\":")
+                .append(backTotal)
+                .append(",\"settlement\":")
+                .append(settlement)
+                .append(",\"lastModifiedHeight\":")
+                .append(lastModifiedHeight)
                 .append(",\"playerList\":")
                 .append(playerList)
                 .append('}').toString();
@@ -0,0 +1,145 @@
+package io.nuls.contract.guess.coin.model;
+
+import io.nuls.contract.sdk.Address;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Author: wangdaijing
+ * @Time: 2019-03-05 14:10
+ * @Description: 固定长度的排行榜
+ * 按分值从大到小最多保存<capacity>个分值大于0的地址，展示前<size>个地址，超出<capacity>的末位被移出
+ * 每次更新为一次二分查找加一次列表插入删除，工作量与<capacity>成正比，与参与排名的地址总数无关
+ * 分值只增不减时（capacity = size）排行榜是准确的；
+ * 分值可能下降时，已被移出的地址只有在其分值下次更新时才能重新进入，榜单为近似结果，
+ * 通过保存多于<size>的候选地址（capacity > size）降低榜上地址分值下降后遗漏其他地址的可能
+ */
+public class Leaderboard {
+
+    /**
+     * 排行榜展示长度
+     */
+    private final int size;
+
+    /**
+     * 最多保存的候选地址数量
+     */
+    private final int capacity;
+
+    /**
+     * 按分值从大到小排列的候选地址
+     */
+    private List<Item> itemList = new ArrayList<>();
+
+    /**
+     * 候选地址当前的分值
+     */
+    private Map<Address, BigInteger> scoreList = new HashMap<>();
+
+    public Leaderboard(int size) {
+        this(size, size);
+    }
+
+    /**
+     * @param size     排行榜展示长度
+     * @param capacity 最多保存的候选地址数量，不小于size
+     */
+    public Leaderboard(int size, int capacity) {
+        this.size = size;
+        this.capacity = Math.max(size, capacity);
+    }
+
+    /**
+     * 更新地址的分值
+     * 已在候选列表中的地址先移除旧的排名，再按新分值插入，超出<capacity>的末位被移出
+     * 分值不大于0的地址不参与排名
+     *
+     * @param address
+     * @param score
+     */
+    public void update(Address address, BigInteger score) {
+        BigInteger oldScore = scoreList.get(address);
+        if (oldScore != null) {
+            if (oldScore.equals(score)) {
+                return;
+            }
+            int index = search(oldScore);
+            while (!itemList.get(index).address.equals(address)) {
+                index++;
+            }
+            itemList.remove(index);
+            scoreList.remove(address);
+        }
+        if (score.compareTo(BigInteger.ZERO) <= 0) {
+            return;
+        }
+        if (itemList.size() >= capacity && score.compareTo(itemList.get(itemList.size() - 1).score) <= 0) {
+            return;
+        }
+        itemList.add(search(score), new Item(address, score));
+        scoreList.put(address, score);
+        if (itemList.size() > capacity) {
+            scoreList.remove(itemList.remove(itemList.size() - 1).address);
+        }
+    }
+
+    /**
+     * 查找第一个分值不大于score的位置
+     *
+     * @param score
+     * @return
+     */
+    private int search(BigInteger score) {
+        int low = 0;
+        int high = itemList.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (itemList.get(mid).score.compareTo(score) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 输出前<size>个地址
+     *
+     * @return
+     */
+    @Override
+    public String toString() {
+        return itemList.subList(0, Math.min(size, itemList.size())).toString();
+    }
+
+    private static class Item {
+
+        private final Address address;
+
+        private final BigInteger score;
+
+        private Item(Address address, BigInteger score) {
+            this.address = address;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder("{")
+                    .append("\"address\":")
+                    .append(address)
+                    .append(",\"score\":")
+                    .append(score)
+                    .append('}').toString();
+        }
+    }
+}
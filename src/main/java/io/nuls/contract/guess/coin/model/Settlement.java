@@ -0,0 +1,137 @@
+package io.nuls.contract.guess.coin.model;
+
+import java.math.BigInteger;
+
+/**
+ * @Author: wangdaijing
+ * @Time: 2019-03-06 11:05
+ * @Description: 分批清算进度
+ * 庄家公布谜底后，玩家列表分多次调用清算，每次清算的进度和累计金额保存在此
+ */
+public class Settlement {
+
+    /**
+     * 下一个待清算玩家在玩家列表中的位置
+     */
+    private int index;
+
+    /**
+     * 是否触发庄家补偿
+     */
+    private boolean bankerCompensationFlag;
+
+    /**
+     * 庄家赌注，初始为庄家押金，清算过程中减去赔给玩家的赌注，加上赢得的赌注
+     */
+    private BigInteger bankerWager;
+
+    /**
+     * 累计的合约手续费
+     */
+    private BigInteger contractFeeTotal = BigInteger.ZERO;
+
+    /**
+     * 累计的系统提成
+     */
+    private BigInteger systemCompensation = BigInteger.ZERO;
+
+    /**
+     * 累计的庄家补偿
+     */
+    private BigInteger bankerCompensation = BigInteger.ZERO;
+
+    public Settlement(BigInteger bankerWager, boolean bankerCompensationFlag) {
+        this.bankerWager = bankerWager;
+        this.bankerCompensationFlag = bankerCompensationFlag;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isBankerCompensationFlag() {
+        return bankerCompensationFlag;
+    }
+
+    public BigInteger getBankerWager() {
+        return bankerWager;
+    }
+
+    public void setBankerWager(BigInteger bankerWager) {
+        this.bankerWager = bankerWager;
+    }
+
+    public BigInteger getContractFeeTotal() {
+        return contractFeeTotal;
+    }
+
+    public void setContractFeeTotal(BigInteger contractFeeTotal) {
+        this.contractFeeTotal = contractFeeTotal;
+    }
+
+    public BigInteger getSystemCompensation() {
+        return systemCompensation;
+    }
+
+    public void setSystemCompensation(BigInteger systemCompensation) {
+        this.systemCompensation = systemCompensation;
+    }
+
+    public BigInteger getBankerCompensation() {
+        return bankerCompensation;
+    }
+
+    public void setBankerCompensation(BigInteger bankerCompensation) {
+        this.bankerCompensation = bankerCompensation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Settlement)) return false;
+
+        Settlement that = (Settlement) o;
+
+        if (index != that.index) return false;
+        if (bankerCompensationFlag != that.bankerCompensationFlag) return false;
+        if (bankerWager != null ? !bankerWager.equals(that.bankerWager) : that.bankerWager != null) return false;
+        if (contractFeeTotal != null ? !contractFeeTotal.equals(that.contractFeeTotal) : that.contractFeeTotal != null)
+            return false;
+        if (systemCompensation != null ? !systemCompensation.equals(that.systemCompensation) : that.systemCompensation != null)
+            return false;
+        return bankerCompensation != null ? bankerCompensation.equals(that.bankerCompensation) : that.bankerCompensation == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + (bankerCompensationFlag ? 1 : 0);
+        result = 31 * result + (bankerWager != null ? bankerWager.hashCode() : 0);
+        result = 31 * result + (contractFeeTotal != null ? contractFeeTotal.hashCode() : 0);
+        result = 31 * result + (systemCompensation != null ? systemCompensation.hashCode() : 0);
+        result = 31 * result + (bankerCompensation != null ? bankerCompensation.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("{")
+                .append("\"index\":")
+                .append(index)
+                .append(",\"bankerCompensationFlag\":")
+                .append(bankerCompensationFlag)
+                .append(",\"bankerWager\":")
+                .append(bankerWager)
+                .append(",\"contractFeeTotal\":")
+                .append(contractFeeTotal)
+                .append(",\"systemCompensation\":")
+                .append(systemCompensation)
+                .append(",\"bankerCompensation\":")
+                .append(bankerCompensation)
+                .append('}').toString();
+    }
+}
@@ -0,0 +1,117 @@
+package io.nuls.contract.guess.coin.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * @Author: wangdaijing
+ * @Time: 2019-03-08 10:40
+ * @Description: 游戏桌某一面的赌注累计
+ * 玩家加入时按清算的计算方式逐个累计取整后的收益和手续费，开奖前无需遍历玩家列表即可得到清算结果
+ */
+public class SideTotal {
+
+    /**
+     * 赌注总额
+     */
+    private BigInteger wager = BigInteger.ZERO;
+
+    /**
+     * 猜中时玩家收益总额（未触发庄家补偿）
+     */
+    private BigInteger winAmount = BigInteger.ZERO;
+
+    /**
+     * 猜中时玩家收益总额（触发庄家补偿）
+     */
+    private BigInteger compensatedWinAmount = BigInteger.ZERO;
+
+    /**
+     * 猜中时的合约手续费总额
+     */
+    private BigInteger contractFee = BigInteger.ZERO;
+
+    /**
+     * 猜中且触发庄家补偿时的庄家补偿总额
+     */
+    private BigInteger bankerCompensation = BigInteger.ZERO;
+
+    /**
+     * 累计一个玩家的赌注
+     *
+     * @param playerWager    玩家赌注
+     * @param winEarningsPer 玩家收益百分比（已减掉系统提成和合约手续费）
+     * @param contractFeePer 合约手续费百分比
+     * @param bankerCompensationPer 庄家补偿百分比
+     */
+    public void add(BigInteger playerWager, BigDecimal winEarningsPer, BigDecimal contractFeePer, BigDecimal bankerCompensationPer) {
+        BigDecimal decimalWager = new BigDecimal(playerWager);
+        wager = wager.add(playerWager);
+        winAmount = winAmount.add(decimalWager.multiply(winEarningsPer).toBigInteger());
+        compensatedWinAmount = compensatedWinAmount.add(decimalWager.multiply(winEarningsPer.subtract(bankerCompensationPer)).toBigInteger());
+        if (!contractFeePer.equals(BigDecimal.ZERO)) {
+            contractFee = contractFee.add(decimalWager.multiply(contractFeePer).toBigInteger());
+        }
+        bankerCompensation = bankerCompensation.add(decimalWager.multiply(bankerCompensationPer).toBigInteger());
+    }
+
+    public BigInteger getWager() {
+        return wager;
+    }
+
+    public BigInteger getWinAmount() {
+        return winAmount;
+    }
+
+    public BigInteger getCompensatedWinAmount() {
+        return compensatedWinAmount;
+    }
+
+    public BigInteger getContractFee() {
+        return contractFee;
+    }
+
+    public BigInteger getBankerCompensation() {
+        return bankerCompensation;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SideTotal)) return false;
+
+        SideTotal sideTotal = (SideTotal) o;
+
+        if (!wager.equals(sideTotal.wager)) return false;
+        if (!winAmount.equals(sideTotal.winAmount)) return false;
+        if (!compensatedWinAmount.equals(sideTotal.compensatedWinAmount)) return false;
+        if (!contractFee.equals(sideTotal.contractFee)) return false;
+        return bankerCompensation.equals(sideTotal.bankerCompensation);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = wager.hashCode();
+        result = 31 * result + winAmount.hashCode();
+        result = 31 * result + compensatedWinAmount.hashCode();
+        result = 31 * result + contractFee.hashCode();
+        result = 31 * result + bankerCompensation.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("{")
+                .append("\"wager\":")
+                .append(wager)
+                .append(",\"winAmount\":")
+                .append(winAmount)
+                .append(",\"compensatedWinAmount\":")
+                .append(compensatedWinAmount)
+                .append(",\"contractFee\":")
+                .append(contractFee)
+                .append(",\"bankerCompensation\":")
+                .append(bankerCompensation)
+                .append('}').toString();
+    }
+}
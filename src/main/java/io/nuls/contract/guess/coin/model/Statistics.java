@@ -0,0 +1,182 @@
+package io.nuls.contract.guess.coin.model;
+
+import java.math.BigInteger;
+
+/**
+ * @Author: wangdaijing
+ * @Time: 2019-03-04 10:20
+ * @Description: 地址统计数据
+ * 开盘、下注及清算时增量更新，查询时无需回放历史清算记录
+ */
+public class Statistics {
+
+    /**
+     * 作为庄家开设的游戏桌数量
+     */
+    private long hostTableCount;
+
+    /**
+     * 作为庄家支付的押金总额
+     */
+    private BigInteger bankerWagerTotal = BigInteger.ZERO;
+
+    /**
+     * 作为庄家赢得的总额（扣除手续费后，含庄家补偿）
+     */
+    private BigInteger bankerWinTotal = BigInteger.ZERO;
+
+    /**
+     * 作为庄家输掉的总额
+     */
+    private BigInteger bankerLoseTotal = BigInteger.ZERO;
+
+    /**
+     * 作为庄家被举报出局的次数
+     */
+    private long bankerOutCount;
+
+    /**
+     * 作为玩家下注的总额
+     */
+    private BigInteger wagerTotal = BigInteger.ZERO;
+
+    /**
+     * 作为玩家赢得的总额（扣除手续费后）
+     */
+    private BigInteger winTotal = BigInteger.ZERO;
+
+    /**
+     * 作为玩家输掉的总额
+     */
+    private BigInteger loseTotal = BigInteger.ZERO;
+
+    /**
+     * 支付的手续费总额（系统提成+合约手续费）
+     */
+    private BigInteger feeTotal = BigInteger.ZERO;
+
+    public void addHostTable(BigInteger maxWagerTotal) {
+        hostTableCount++;
+        bankerWagerTotal = bankerWagerTotal.add(maxWagerTotal);
+    }
+
+    public void addBankerWin(BigInteger amount) {
+        bankerWinTotal = bankerWinTotal.add(amount);
+    }
+
+    public void addBankerLose(BigInteger amount) {
+        bankerLoseTotal = bankerLoseTotal.add(amount);
+    }
+
+    public void addBankerOut() {
+        bankerOutCount++;
+    }
+
+    public void addWager(BigInteger amount) {
+        wagerTotal = wagerTotal.add(amount);
+    }
+
+    public void addWin(BigInteger amount) {
+        winTotal = winTotal.add(amount);
+    }
+
+    public void addLose(BigInteger amount) {
+        loseTotal = loseTotal.add(amount);
+    }
+
+    public void addFee(BigInteger amount) {
+        feeTotal = feeTotal.add(amount);
+    }
+
+    public long getHostTableCount() {
+        return hostTableCount;
+    }
+
+    public BigInteger getBankerWagerTotal() {
+        return bankerWagerTotal;
+    }
+
+    public BigInteger getBankerWinTotal() {
+        return bankerWinTotal;
+    }
+
+    public BigInteger getBankerLoseTotal() {
+        return bankerLoseTotal;
+    }
+
+    public long getBankerOutCount() {
+        return bankerOutCount;
+    }
+
+    public BigInteger getWagerTotal() {
+        return wagerTotal;
+    }
+
+    public BigInteger getWinTotal() {
+        return winTotal;
+    }
+
+    public BigInteger getLoseTotal() {
+        return loseTotal;
+    }
+
+    public BigInteger getFeeTotal() {
+        return feeTotal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Statistics)) return false;
+
+        Statistics that = (Statistics) o;
+
+        if (hostTableCount != that.hostTableCount) return false;
+        if (bankerOutCount != that.bankerOutCount) return false;
+        if (!bankerWagerTotal.equals(that.bankerWagerTotal)) return false;
+        if (!bankerWinTotal.equals(that.bankerWinTotal)) return false;
+        if (!bankerLoseTotal.equals(that.bankerLoseTotal)) return false;
+        if (!wagerTotal.equals(that.wagerTotal)) return false;
+        if (!winTotal.equals(that.winTotal)) return false;
+        if (!loseTotal.equals(that.loseTotal)) return false;
+        return feeTotal.equals(that.feeTotal);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (hostTableCount ^ (hostTableCount >>> 32));
+        result = 31 * result + bankerWagerTotal.hashCode();
+        result = 31 * result + bankerWinTotal.hashCode();
+        result = 31 * result + bankerLoseTotal.hashCode();
+        result = 31 * result + (int) (bankerOutCount ^ (bankerOutCount >>> 32));
+        result = 31 * result + wagerTotal.hashCode();
+        result = 31 * result + winTotal.hashCode();
+        result = 31 * result + loseTotal.hashCode();
+        result = 31 * result + feeTotal.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder("{")
+                .append("\"hostTableCount\":")
+                .append(hostTableCount)
+                .append(",\"bankerWagerTotal\":")
+                .append(bankerWagerTotal)
+                .append(",\"bankerWinTotal\":")
+                .append(bankerWinTotal)
+                .append(",\"bankerLoseTotal\":")
+                .append(bankerLoseTotal)
+                .append(",\"bankerOutCount\":")
+                .append(bankerOutCount)
+                .append(",\"wagerTotal\":")
+                .append(wagerTotal)
+                .append(",\"winTotal\":")
+                .append(winTotal)
+                .append(",\"loseTotal\":")
+                .append(loseTotal)
+                .append(",\"feeTotal\":")
+                .append(feeTotal)
+                .append('}').toString();
+    }
+}